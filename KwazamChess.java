@@ -18,6 +18,8 @@ import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 
 // Main Menu class,it displays a menu interface with 3 options, Start a new game, Load a save game and quit game. 
@@ -87,6 +89,7 @@ class KwazamModel {
     private boolean isBlueTurn = true; // Indicate if it is Blue’s turn
     private int turnCounter = 0; // Tracks the number of turns taken
     private List<String> moveHistory;  // To track the move history
+    private List<KwazamModelListener> listeners = new ArrayList<>(); // Notified after every move or board reset
 
     public KwazamModel() { 
     // Constructor, initializes the board and move history
@@ -133,16 +136,64 @@ class KwazamModel {
         return board[row][col];
     }
 
+    // Returns a compact code for the piece on a square: 0 if empty, otherwise 1 + type * 2 + color
+    // Types are Ram, flipped Ram, Biz, Tor, Xor, Sau (0..5), color is 0 for Blue and 1 for Red
+    public int getPieceCode(int row, int col) {
+        Piece piece = board[row][col];
+        if (piece == null) return 0;
+        int type;
+        if (piece instanceof Ram) type = ((Ram) piece).isFlipped() ? 1 : 0;
+        else if (piece instanceof Biz) type = 2;
+        else if (piece instanceof Tor) type = 3;
+        else if (piece instanceof Xor) type = 4;
+        else type = 5;
+        return 1 + type * 2 + (piece.isBlue() ? 0 : 1);
+    }
+
+    // Piece code of a Ram after it turns around. Ram codes are 1..4 (Blue/Red Ram, Blue/Red flipped Ram)
+    public static int flipRamCode(int code) {
+        return code <= 2 ? code + 2 : code - 2;
+    }
+
+    // Piece code after the Tor/Xor transform. Tor codes are 7..8 and Xor codes are 9..10, others are unchanged
+    public static int swapTorXorCode(int code) {
+        if (code == 7 || code == 8) return code + 2;
+        if (code == 9 || code == 10) return code - 2;
+        return code;
+    }
+
+    // Number of moves played, used for the Tor/Xor transform phase
+    public int getTurnCounter() {
+        return turnCounter;
+    }
+
+    public void addListener(KwazamModelListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(KwazamModelListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyPieceMoved(int startRow, int startCol, int endRow, int endCol, Piece captured, boolean ramFlipped, boolean transformed) {
+        for (KwazamModelListener listener : listeners) {
+            listener.pieceMoved(this, startRow, startCol, endRow, endCol, captured, ramFlipped, transformed);
+        }
+    }
+
     // Move a piece on the board
     public void movePiece(int startRow, int startCol, int endRow, int endCol) { 
         Piece piece = board[startRow][startCol];
         Piece targetPiece = board[endRow][endCol];
+        boolean ramFlipped = false; // Whether the Ram turned around on this move
 
         if (piece instanceof Ram) { 
             if (!piece.isValidMove(startRow, startCol, endRow, endCol, board)) {
                 throw new IllegalArgumentException("Invalid move for Ram.");
             }
+            boolean wasFlipped = ((Ram) piece).isFlipped();
             ((Ram) piece).handleEndOfBoard(endRow);
+            ramFlipped = ((Ram) piece).isFlipped() != wasFlipped;
         }
 
         // Check if the move ends on a sau
@@ -150,6 +201,7 @@ class KwazamModel {
         if (targetPiece instanceof Sau) { 
             board[endRow][endCol] = piece; // Replace sau with the moving piece
             board[startRow][startCol] = null; // Clear the starting position
+            notifyPieceMoved(startRow, startCol, endRow, endCol, targetPiece, ramFlipped, false);
             throw new GameOverException(piece.isBlue() ? "Blue" : "Red"); // Game over
         }
 
@@ -158,7 +210,8 @@ class KwazamModel {
         board[startRow][startCol] = null;
 
         turnCounter++;//keep track of turn to switch
-        if (turnCounter % 4 == 0) {//if it reach 2 turn swap Tor/Xor
+        boolean transformed = turnCounter % 4 == 0;
+        if (transformed) {//if it reach 2 turn swap Tor/Xor
             transformPieces();
         }
 
@@ -168,6 +221,7 @@ class KwazamModel {
         moveHistory.add(move);
 
         isBlueTurn = !isBlueTurn;
+        notifyPieceMoved(startRow, startCol, endRow, endCol, targetPiece, ramFlipped, transformed);
     }
 
     public void loadMoveHistoryFromFile(File file) throws IOException {
@@ -243,9 +297,22 @@ class KwazamModel {
             isBlueTurn = in.readBoolean();
             turnCounter = in.readInt();
         }
+        for (KwazamModelListener listener : listeners) {
+            listener.boardReset(this); // The whole board changed, listeners must resync
+        }
     }
 }
 
+// Listener for model changes. Gets the move as a small delta instead of the whole board,
+// so observers can update their own state without rescanning the model.
+interface KwazamModelListener {
+    // Called after a move is applied. The model already reflects the move, the Tor/Xor transform and the turn switch.
+    void pieceMoved(KwazamModel model, int startRow, int startCol, int endRow, int endCol, Piece captured, boolean ramFlipped, boolean transformed);
+
+    // Called when the board is replaced, e.g. after loading a saved game
+    void boardReset(KwazamModel model);
+}
+
 abstract class Piece implements Serializable {
     protected boolean isBlue;
 
@@ -393,6 +460,558 @@ class GameOverException extends RuntimeException { // Low Mun Kit
 }
 
 
+// Evaluation
+// A small quantized neural network that scores a position for the side to move.
+// Input features are (piece code, square) pairs plus the Tor/Xor phase, so a move only touches a few features.
+// The hidden layer (the accumulator) is therefore updated per move instead of being recomputed from the board.
+class KwazamNetwork {
+    public static final int MAGIC = 0x4B575A4E; // "KWZN"
+    public static final int VERSION = 1;
+    public static final int SQUARES = 8 * 5;
+    public static final int PIECE_CODES = 12; // See KwazamModel.getPieceCode
+    public static final int PHASES = 4; // turnCounter % 4, Tor/Xor swap when it wraps to 0
+    public static final int FEATURES = PIECE_CODES * SQUARES + PHASES;
+    public static final int QA = 255; // Clipping value of the hidden layer
+    public static final int QB = 64; // Quantization of the output weights
+    public static final int SCALE = 400; // Converts network output to centipawn like units
+
+    final int hiddenSize;
+    final short[] featureWeights; // FEATURES x hiddenSize, row per feature
+    final short[] hiddenBiases;   // hiddenSize
+    final short[] outputWeights;  // hiddenSize
+    final int outputBias;
+
+    KwazamNetwork(int hiddenSize, short[] featureWeights, short[] hiddenBiases, short[] outputWeights, int outputBias) {
+        if (featureWeights.length != FEATURES * hiddenSize || hiddenBiases.length != hiddenSize || outputWeights.length != hiddenSize) {
+            throw new IllegalArgumentException("Weight arrays do not match hidden size " + hiddenSize);
+        }
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.hiddenBiases = hiddenBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    // Feature index of a piece code (1..12) on a square
+    public static int pieceFeature(int pieceCode, int row, int col) {
+        return (pieceCode - 1) * SQUARES + row * 5 + col;
+    }
+
+    public static int phaseFeature(int turnCounter) {
+        return PIECE_CODES * SQUARES + turnCounter % PHASES;
+    }
+
+    // Loads a weight file. Layout (big endian, as written by DataOutputStream):
+    // int magic, int version, int hiddenSize, short[FEATURES * hiddenSize] feature weights,
+    // short[hiddenSize] hidden biases, short[hiddenSize] output weights, int output bias
+    public static KwazamNetwork load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a Kwazam network file");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported network version " + version);
+            int hiddenSize = in.readInt();
+            if (hiddenSize <= 0 || hiddenSize > 4096) throw new IOException("Bad hidden size " + hiddenSize);
+
+            short[] featureWeights = readShorts(in, FEATURES * hiddenSize);
+            short[] hiddenBiases = readShorts(in, hiddenSize);
+            short[] outputWeights = readShorts(in, hiddenSize);
+            int outputBias = in.readInt();
+            return new KwazamNetwork(hiddenSize, featureWeights, hiddenBiases, outputWeights, outputBias);
+        } catch (EOFException e) {
+            throw new IOException("Network file is truncated", e);
+        }
+    }
+
+    // Writes the network in the format read by load
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(hiddenSize);
+            for (short w : featureWeights) out.writeShort(w);
+            for (short b : hiddenBiases) out.writeShort(b);
+            for (short w : outputWeights) out.writeShort(w);
+            out.writeInt(outputBias);
+        }
+    }
+
+    private static short[] readShorts(DataInputStream in, int count) throws IOException {
+        short[] values = new short[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readShort();
+        }
+        return values;
+    }
+}
+
+// Keeps the accumulator of a KwazamNetwork in sync with a model by listening to its moves.
+// The loops over the hidden layer are plain counted loops over short/int arrays, which HotSpot
+// turns into SIMD instructions on its own, so no extra JVM modules or flags are needed.
+class KwazamEvaluator implements KwazamModelListener {
+    private final KwazamNetwork network;
+    private final KwazamModel model;
+    private final short[] accumulator;
+    private final int[] squareCodes = new int[KwazamNetwork.SQUARES]; // Piece code per square as seen by the accumulator
+    private int phase; // Active phase feature
+
+    public KwazamEvaluator(KwazamNetwork network, KwazamModel model) {
+        this.network = network;
+        this.model = model;
+        this.accumulator = new short[network.hiddenSize];
+        refresh();
+        model.addListener(this);
+    }
+
+    // Score of the position in centipawn like units, positive is good for the side to move
+    public int evaluate() {
+        short[] weights = network.outputWeights;
+        int sum = 0;
+        for (int i = 0; i < accumulator.length; i++) {
+            int clipped = Math.min(Math.max(accumulator[i], 0), KwazamNetwork.QA); // Clipped ReLU
+            sum += clipped * weights[i];
+        }
+        int blueScore = (int) ((long) (sum + network.outputBias) * KwazamNetwork.SCALE / (KwazamNetwork.QA * KwazamNetwork.QB));
+        return model.isBlueTurn() ? blueScore : -blueScore;
+    }
+
+    @Override
+    public void pieceMoved(KwazamModel model, int startRow, int startCol, int endRow, int endCol, Piece captured, boolean ramFlipped, boolean transformed) {
+        int from = startRow * 5 + startCol;
+        int to = endRow * 5 + endCol;
+        int moving = squareCodes[from];
+        if (ramFlipped) {
+            moving = KwazamModel.flipRamCode(moving);
+        }
+
+        subFeature(KwazamNetwork.pieceFeature(squareCodes[from], startRow, startCol));
+        if (squareCodes[to] != 0) {
+            subFeature(KwazamNetwork.pieceFeature(squareCodes[to], endRow, endCol)); // Captured piece
+        }
+        addFeature(KwazamNetwork.pieceFeature(moving, endRow, endCol));
+        squareCodes[from] = 0;
+        squareCodes[to] = moving;
+
+        if (transformed) {
+            for (int square = 0; square < squareCodes.length; square++) {
+                int code = squareCodes[square];
+                int swapped = KwazamModel.swapTorXorCode(code);
+                if (swapped != code) {
+                    subFeature(KwazamNetwork.pieceFeature(code, square / 5, square % 5));
+                    addFeature(KwazamNetwork.pieceFeature(swapped, square / 5, square % 5));
+                    squareCodes[square] = swapped;
+                }
+            }
+        }
+
+        int newPhase = KwazamNetwork.phaseFeature(model.getTurnCounter());
+        if (newPhase != phase) {
+            subFeature(phase);
+            addFeature(newPhase);
+            phase = newPhase;
+        }
+    }
+
+    @Override
+    public void boardReset(KwazamModel model) {
+        refresh();
+    }
+
+    // Rebuilds the accumulator from scratch, only needed when the whole board changes
+    public void refresh() {
+        System.arraycopy(network.hiddenBiases, 0, accumulator, 0, accumulator.length);
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 5; col++) {
+                int code = model.getPieceCode(row, col);
+                squareCodes[row * 5 + col] = code;
+                if (code != 0) {
+                    addFeature(KwazamNetwork.pieceFeature(code, row, col));
+                }
+            }
+        }
+        phase = KwazamNetwork.phaseFeature(model.getTurnCounter());
+        addFeature(phase);
+    }
+
+    private void addFeature(int feature) {
+        short[] weights = network.featureWeights;
+        int offset = feature * accumulator.length;
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    private void subFeature(int feature) {
+        short[] weights = network.featureWeights;
+        int offset = feature * accumulator.length;
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+}
+
+// Broadcast
+// Publishes every move of one model as a small delta into a shared ring buffer so any number of
+// spectators can follow the game without a KwazamView or a copy of the model.
+// Delta layout (int): from square bits 0-5, to square bits 6-11, captured piece code bits 12-15,
+// Ram flip bit 16, Tor/Xor transform bit 17, board reset bit 18.
+class KwazamBroadcaster implements KwazamModelListener {
+    public static final int RAM_FLIP = 1 << 16;
+    public static final int TRANSFORM = 1 << 17;
+    public static final int RESET = 1 << 18;
+
+    private final int capacity;
+    private final AtomicLongArray ring; // delta << 32 | publish time in microseconds
+    private final long startNanos = System.nanoTime();
+    private volatile long published = 0; // Number of deltas written so far
+    private KwazamModel model;
+
+    // Snapshot of the board after the last published delta, given to late joiners
+    private final byte[] codes = new byte[KwazamNetwork.SQUARES];
+    private boolean blueTurn;
+    private int turnCounter;
+
+    public KwazamBroadcaster(KwazamModel model, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.ring = new AtomicLongArray(capacity);
+        attach(model);
+    }
+
+    // Follows another model, e.g. when a new game starts. Spectators resync from the new board.
+    public void attach(KwazamModel newModel) {
+        if (model != null) {
+            model.removeListener(this);
+        }
+        model = newModel;
+        model.addListener(this);
+        boardReset(model);
+    }
+
+    @Override
+    public synchronized void pieceMoved(KwazamModel model, int startRow, int startCol, int endRow, int endCol, Piece captured, boolean ramFlipped, boolean transformed) {
+        int from = startRow * 5 + startCol;
+        int to = endRow * 5 + endCol;
+        int delta = from | to << 6 | codes[to] << 12;
+        if (ramFlipped) delta |= RAM_FLIP;
+        if (transformed) delta |= TRANSFORM;
+        applyDelta(delta, codes);
+        blueTurn = model.isBlueTurn();
+        turnCounter = model.getTurnCounter();
+        publish(delta);
+    }
+
+    @Override
+    public synchronized void boardReset(KwazamModel model) {
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 5; col++) {
+                codes[row * 5 + col] = (byte) model.getPieceCode(row, col);
+            }
+        }
+        blueTurn = model.isBlueTurn();
+        turnCounter = model.getTurnCounter();
+        publish(RESET);
+    }
+
+    // Only called by the game thread while holding the lock, so there is a single writer
+    private void publish(int delta) {
+        long seq = published;
+        ring.set((int) (seq & (capacity - 1)), (long) delta << 32 | (nowMicros() & 0xFFFFFFFFL));
+        published = seq + 1;
+    }
+
+    // Creates a spectator that starts from the current snapshot and then follows the live stream
+    public KwazamSpectator subscribe() {
+        KwazamSpectator spectator = new KwazamSpectator(this);
+        resync(spectator);
+        return spectator;
+    }
+
+    synchronized void resync(KwazamSpectator spectator) {
+        System.arraycopy(codes, 0, spectator.codes, 0, codes.length);
+        spectator.blueTurn = blueTurn;
+        spectator.turnCounter = turnCounter;
+        spectator.cursor = published;
+    }
+
+    // Applies a move delta to a board of piece codes. Shared by the snapshot and every spectator.
+    static void applyDelta(int delta, byte[] board) {
+        int from = delta & 63;
+        int to = delta >> 6 & 63;
+        int moving = board[from];
+        if ((delta & RAM_FLIP) != 0) {
+            moving = KwazamModel.flipRamCode(moving);
+        }
+        board[to] = (byte) moving;
+        board[from] = 0;
+        if ((delta & TRANSFORM) != 0) {
+            for (int square = 0; square < board.length; square++) {
+                board[square] = (byte) KwazamModel.swapTorXorCode(board[square]);
+            }
+        }
+    }
+
+    public static boolean isSauCapture(int delta) {
+        int captured = delta >> 12 & 15;
+        return captured == 11 || captured == 12;
+    }
+
+    int nowMicros() {
+        return (int) ((System.nanoTime() - startNanos) / 1000);
+    }
+
+    long published() {
+        return published;
+    }
+
+    long entryAt(long seq) {
+        return ring.get((int) (seq & (capacity - 1)));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int getPieceCode(int row, int col) {
+        return codes[row * 5 + col];
+    }
+}
+
+// One observer of a broadcast game. Keeps its own 40 byte board and is advanced by calling poll,
+// so thousands of them can share a few threads. A spectator that falls a whole ring behind
+// resyncs from the snapshot instead of buffering, which keeps memory bounded.
+class KwazamSpectator {
+    private final KwazamBroadcaster broadcaster;
+    final byte[] codes = new byte[KwazamNetwork.SQUARES];
+    boolean blueTurn;
+    int turnCounter;
+    long cursor; // Sequence of the next delta to apply
+    private boolean gameOver;
+    private int resyncs;
+    private int maxLatencyMicros; // Worst publish to apply delay since the last takeMaxLatencyMicros
+
+    KwazamSpectator(KwazamBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    // Applies every delta published since the last call, returns how many were applied
+    public int poll() {
+        long available = broadcaster.published();
+        int applied = 0;
+        while (cursor < available) {
+            long entry = broadcaster.entryAt(cursor);
+            if (broadcaster.published() - cursor >= broadcaster.getCapacity()) {
+                lapped(); // The slot may already hold a newer delta
+                return applied;
+            }
+            int delta = (int) (entry >>> 32);
+            int latency = broadcaster.nowMicros() - (int) entry;
+            maxLatencyMicros = Math.max(maxLatencyMicros, latency);
+            cursor++;
+            applied++;
+
+            if ((delta & KwazamBroadcaster.RESET) != 0) {
+                gameOver = false;
+                broadcaster.resync(this); // New board, take the snapshot
+                return applied;
+            }
+            KwazamBroadcaster.applyDelta(delta, codes);
+            if (KwazamBroadcaster.isSauCapture(delta)) {
+                gameOver = true;
+            } else {
+                turnCounter++;
+                blueTurn = !blueTurn;
+            }
+        }
+        return applied;
+    }
+
+    private void lapped() {
+        resyncs++;
+        broadcaster.resync(this);
+    }
+
+    public int getPieceCode(int row, int col) {
+        return codes[row * 5 + col];
+    }
+
+    public boolean isBlueTurn() {
+        return blueTurn;
+    }
+
+    public int getTurnCounter() {
+        return turnCounter;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public int getResyncs() {
+        return resyncs;
+    }
+
+    public int takeMaxLatencyMicros() {
+        int latency = maxLatencyMicros;
+        maxLatencyMicros = 0;
+        return latency;
+    }
+}
+
+// Local load generator: one game played with random moves, fanned out to many spectators.
+// Run with: java KwazamBroadcastLoadTest [spectators] [moves] [movesPerSecond]
+class KwazamBroadcastLoadTest {
+    public static void main(String[] args) throws InterruptedException {
+        int spectatorCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int movesPerSecond = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        KwazamModel model = new KwazamModel();
+        KwazamBroadcaster broadcaster = new KwazamBroadcaster(model, 1024);
+        KwazamSpectator[] spectators = new KwazamSpectator[spectatorCount];
+        for (int i = 0; i < spectatorCount / 2; i++) {
+            spectators[i] = broadcaster.subscribe(); // The other half joins mid game
+        }
+
+        long[][] histograms = new long[workers][32]; // Latency buckets per power of two microseconds
+        long[] deliveries = new long[workers];
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean lateJoin = new AtomicBoolean(false);
+        Thread[] threads = new Thread[workers];
+        for (int w = 0; w < workers; w++) {
+            final int worker = w;
+            threads[w] = new Thread(() -> {
+                while (true) {
+                    boolean stop = !running.get();
+                    boolean join = lateJoin.get();
+                    int applied = 0;
+                    for (int i = worker; i < spectatorCount; i += workers) {
+                        if (spectators[i] == null) {
+                            if (!join) continue;
+                            spectators[i] = broadcaster.subscribe();
+                        }
+                        int count = spectators[i].poll();
+                        if (count > 0) {
+                            applied += count;
+                            int latency = spectators[i].takeMaxLatencyMicros();
+                            histograms[worker][32 - Integer.numberOfLeadingZeros(Math.max(latency, 0))]++;
+                        }
+                    }
+                    deliveries[worker] += applied;
+                    if (stop && applied == 0) break; // Drained after the game thread finished
+                    if (applied == 0) Thread.onSpinWait();
+                }
+            });
+            threads[w].start();
+        }
+
+        Random random = new Random(42);
+        long intervalNanos = 1_000_000_000L / movesPerSecond;
+        long next = System.nanoTime();
+        long start = next;
+        int games = 1;
+        for (int played = 0; played < moves; played++) {
+            if (played == moves / 2) {
+                lateJoin.set(true);
+            }
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+            next += intervalNanos;
+
+            int[] move = randomMove(model, random);
+            if (move == null) {
+                model = new KwazamModel();
+                broadcaster.attach(model);
+                games++;
+                continue;
+            }
+            try {
+                model.movePiece(move[0], move[1], move[2], move[3]);
+            } catch (GameOverException e) {
+                model = new KwazamModel();
+                broadcaster.attach(model);
+                games++;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Every spectator must end on the same board as the broadcaster
+        int mismatches = 0;
+        long resyncs = 0;
+        for (KwazamSpectator spectator : spectators) {
+            resyncs += spectator.getResyncs();
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 5; col++) {
+                    if (spectator.getPieceCode(row, col) != broadcaster.getPieceCode(row, col)) {
+                        mismatches++;
+                        row = 8;
+                        break;
+                    }
+                }
+            }
+        }
+
+        long[] histogram = new long[32];
+        long total = 0;
+        for (int w = 0; w < workers; w++) {
+            for (int b = 0; b < 32; b++) histogram[b] += histograms[w][b];
+            total += deliveries[w];
+        }
+        System.gc();
+        long usedMemory = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+
+        System.out.println("Spectators: " + spectatorCount + ", worker threads: " + workers + ", games: " + games);
+        System.out.println("Deltas published: " + broadcaster.published() + " in " + elapsedNanos / 1_000_000 + " ms");
+        System.out.println("Deltas delivered: " + total + ", resyncs: " + resyncs + ", mismatched boards: " + mismatches);
+        System.out.println("Latency p50 <= " + percentile(histogram, 0.50) + " us, p99 <= " + percentile(histogram, 0.99)
+            + " us, max <= " + percentile(histogram, 1.0) + " us");
+        System.out.println("Ring: " + broadcaster.getCapacity() + " slots, heap in use: " + usedMemory / 1024 + " KB");
+    }
+
+    // Upper bound of the histogram bucket holding the given fraction of samples
+    private static long percentile(long[] histogram, double fraction) {
+        long total = 0;
+        for (long count : histogram) total += count;
+        long target = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int b = 0; b < histogram.length; b++) {
+            seen += histogram[b];
+            if (seen >= target && histogram[b] > 0) return (1L << b) - 1;
+        }
+        return 0;
+    }
+
+    // Picks a random valid move for the side to move, or null if there is none
+    private static int[] randomMove(KwazamModel model, Random random) {
+        List<int[]> moves = new ArrayList<>();
+        for (int startRow = 0; startRow < 8; startRow++) {
+            for (int startCol = 0; startCol < 5; startCol++) {
+                Piece piece = model.getPieceAt(startRow, startCol);
+                if (piece == null || piece.isBlue() != model.isBlueTurn()) continue;
+                for (int endRow = 0; endRow < 8; endRow++) {
+                    for (int endCol = 0; endCol < 5; endCol++) {
+                        try {
+                            if (model.isValidMove(startRow, startCol, endRow, endCol)) {
+                                moves.add(new int[]{startRow, startCol, endRow, endCol});
+                            }
+                        } catch (Exception e) {
+                            // Same as the controller, skip squares the path check cannot handle
+                        }
+                    }
+                }
+            }
+        }
+        return moves.isEmpty() ? null : moves.get(random.nextInt(moves.size()));
+    }
+}
+
 // View. This class is responsible for the game interface.
 
 class KwazamView extends JFrame {